@@ -4,23 +4,66 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.ServerSocket;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LlamacppServer implements AutoCloseable {
-    public Process process;
+    public volatile Process process;
     public File workdir;
-    public CompletableFuture<Void> logStream;
-    private int port = 8080; // Default port
+    public volatile CompletableFuture<Void> logStream;
+    private volatile int port = 8080; // Default port
+    private final String[] args;
+    private final String model;
+    private final int parallel;
+    private volatile Semaphore slots;
+    private final RequestTracer tracer = new RequestTracer();
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    // log pumps, standby scheduling and draining block for long, so they never run on the common pool
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "llamacpp-server-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Warm standby: at most one extra pre-loaded llama-server process, off by default
+    private volatile Process standby;
+    private volatile CompletableFuture<Void> standbyLogStream;
+    private volatile int standbyPort = -1;
+    private volatile int configuredStandbyPort = -1;
+    private final Set<Integer> retiredPorts = new HashSet<>();
+    private final Map<Process, CompletableFuture<Void>> retiringProcesses = new HashMap<>();
+    private volatile boolean standbyEnabled = false;
+    private volatile boolean closing = false;
+    private volatile long standbySpawnedAt = 0;
+    private int standbyFailures = 0;
+    private final List<StandbyListener> standbyListeners = new CopyOnWriteArrayList<>();
 
     private static final Logger logger = LoggerFactory.getLogger(LlamacppServer.class);
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+    private static final long MAX_STANDBY_BACKOFF_MILLIS = 60000;
+    private static final long STANDBY_STABLE_MILLIS = 60000;
+    private static final AtomicInteger threadCounter = new AtomicInteger();
 
     private static String[] CPU_LIBS = {"libggml.so", "libggml-base.so", "libggml-cpu.so", "libllama.so", "llama-server", "libmtmd.so"};
     private static String[] CUDA_LIBS = {"libggml.so", "libggml-base.so", "libggml-cpu.so", "libggml-cuda.so", "libllama.so", "llama-server", "libmtmd.so"};
@@ -34,11 +77,15 @@ public class LlamacppServer implements AutoCloseable {
         GGML_CUDA12
     }
 
-    LlamacppServer(Process process, File workdir, CompletableFuture<Void> logStream, int port) {
+    LlamacppServer(Process process, File workdir, int port, String[] args, int parallel) {
         this.process = process;
         this.workdir = workdir;
-        this.logStream = logStream;
+        this.logStream = streamLogs(process, "");
         this.port = port;
+        this.args = args.clone();
+        this.model = extractModelFromArgs(args);
+        this.parallel = Math.max(1, parallel);
+        this.slots = new Semaphore(this.parallel, true);
     }
 
     /**
@@ -52,36 +99,39 @@ public class LlamacppServer implements AutoCloseable {
      * @throws InterruptedException if startup is interrupted
      */
     public synchronized static LlamacppServer start(String[] args, LLAMACPP_BACKEND backend) throws IOException, InterruptedException {
+        return start(args, backend, -1);
+    }
+
+    /**
+     * Starts a new LlamacppServer instance, optionally with a warm standby process.
+     * The standby is a second llama-server with the same arguments listening on standbyPort.
+     * It is spawned once the primary reports healthy, and is promoted to primary when the primary
+     * process exits unexpectedly.
+     * <p>
+     * After a failover the serving port changes: the promoted standby keeps listening on standbyPort,
+     * and the replacement standby gets a new free port. A port which once served as primary is never
+     * reused, so clients stuck on an old port fail fast instead of hitting a standby. Requests made with
+     * {@link #post(String, String)} follow the primary automatically, other callers should use
+     * {@link #port()} or register a {@link StandbyListener}.
+     * 
+     * @param args command line arguments to pass to llama-server
+     * @param backend the backend type (CPU or CUDA)
+     * @param standbyPort port for the standby process, or -1 to disable the standby
+     * @return the LlamacppServer instance
+     * @throws IOException if server startup fails
+     * @throws InterruptedException if startup is interrupted
+     */
+    public synchronized static LlamacppServer start(String[] args, LLAMACPP_BACKEND backend, int standbyPort) throws IOException, InterruptedException {
         if (!isStarted) {
             isStarted = true;
             File workdir = unpack(backend);
-            ProcessBuilder builder = new ProcessBuilder();
-            List<String> commandArgs = new ArrayList<>();
-            commandArgs.add(workdir + "/llama-server");
-            commandArgs.addAll(Arrays.asList(args));
-            builder.command(commandArgs);
-            builder.redirectErrorStream(true);
-            builder.directory(workdir);
-            Process process = builder.start();
-            CompletableFuture<Void> logStream = CompletableFuture.runAsync(() -> {
-                        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                            String line;
-                            while (process.isAlive() && (line = reader.readLine()) != null) {
-                                logger.info(line);
-                            }
-                        } catch (IOException e) {
-                            if (process.isAlive()) {
-                                logger.error("Log stream error: {}", e.getMessage());
-                            } else {
-                                logger.debug("Log stream closed during shutdown: {}", e.getMessage());
-                            }
-                        } catch (Exception e) {
-                            logger.error("Unexpected error in log stream: {}", e.getMessage(), e);
-                        }
-                    }
-            );
+            Process process = spawn(workdir, args);
             int port = extractPortFromArgs(args);
-            instance = new LlamacppServer(process, workdir, logStream, port);
+            instance = new LlamacppServer(process, workdir, port, args, extractParallelFromArgs(args));
+            instance.watch(process);
+            if (standbyPort > 0) {
+                instance.enableStandby(standbyPort);
+            }
             return instance;
         } else {
             logger.warn("Called LlamacppServer.start for the second time - it seems like a bug");
@@ -116,12 +166,11 @@ public class LlamacppServer implements AutoCloseable {
         if (!isProcessAlive()) {
             return false;
         }
-        
+        return healthcheck(port);
+    }
+
+    private boolean healthcheck(int port) {
         try {
-            HttpClient client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(2))
-                    .build();
-            
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create("http://localhost:" + port + "/health"))
                     .timeout(Duration.ofSeconds(2))
@@ -136,6 +185,241 @@ public class LlamacppServer implements AutoCloseable {
         }
     }
 
+    /**
+     * Returns the port of the current primary llama-server process.
+     * With a standby enabled the port changes after a failover to the port of the promoted standby.
+     *
+     * @return the port the primary process listens on
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Registers a listener notified with the new serving port every time the standby is promoted.
+     *
+     * @param listener the listener to add
+     */
+    public void addStandbyListener(StandbyListener listener) {
+        standbyListeners.add(listener);
+    }
+
+    public void removeStandbyListener(StandbyListener listener) {
+        standbyListeners.remove(listener);
+    }
+
+    /**
+     * Enables the warm standby: once the primary is healthy, spawns a second llama-server with the same
+     * arguments on the given port, and keeps one replenished after every promotion or standby crash.
+     * If a standby is already running, the new port is used from its next respawn. Replacement standbys
+     * spawned after a promotion use this port if it is free, otherwise a random free port.
+     * At most one standby process is kept, but it is a full second instance: only mmapped weights kept in
+     * RAM are shared with the primary via the page cache. With --no-mmap, --mlock or GPU offloading each
+     * process holds its own copy of the weights, and the KV cache is never shared, so budget memory for
+     * two complete llama-server instances.
+     *
+     * @param standbyPort port for the standby process
+     * @throws IllegalArgumentException if the port is not positive, or is or was used by a primary process
+     */
+    public synchronized void enableStandby(int standbyPort) {
+        if (standbyPort <= 0) {
+            throw new IllegalArgumentException("Standby port should be positive, got " + standbyPort);
+        }
+        if (standbyPort == port || retiredPorts.contains(standbyPort)) {
+            throw new IllegalArgumentException("Standby port " + standbyPort + " is or was used by the primary");
+        }
+        this.configuredStandbyPort = standbyPort;
+        if (standby != null && standbyPort != this.standbyPort) {
+            logger.info("Standby port {} will be used after the current standby on port {} is replaced", standbyPort, this.standbyPort);
+        }
+        this.standbyEnabled = true;
+        if (standby == null) {
+            scheduleStandby(0);
+        }
+    }
+
+    /**
+     * Disables the warm standby and stops the standby process, if any.
+     *
+     * @throws Exception if the standby process cannot be stopped
+     */
+    public void disableStandby() throws Exception {
+        Process stopped;
+        CompletableFuture<Void> stoppedLogs;
+        synchronized (this) {
+            standbyEnabled = false;
+            stopped = standby;
+            stoppedLogs = standbyLogStream;
+            standby = null;
+            standbyLogStream = null;
+        }
+        if (stopped != null) {
+            stop(stopped, stoppedLogs);
+        }
+    }
+
+    /**
+     * Checks if a standby process is running and its /health endpoint returns 200.
+     *
+     * @return true if the standby can serve requests right after promotion
+     */
+    public boolean isStandbyReady() {
+        Process current = standby;
+        return current != null && current.isAlive() && healthcheck(standbyPort);
+    }
+
+    /**
+     * Promotes the standby process to primary and spawns a replacement standby in the background.
+     * The standby must be healthy, otherwise nothing is changed. The old primary is stopped once its
+     * in-flight {@link #post(String, String)} requests finish, or after a 60 second drain timeout.
+     *
+     * @return true if a standby was promoted, false if no healthy standby was available
+     */
+    public boolean promoteStandby() {
+        if (!isStandbyReady()) {
+            return false;
+        }
+        int newPort = promote(null);
+        if (newPort < 0) {
+            return false;
+        }
+        notifyPromotion(newPort);
+        return true;
+    }
+
+    // swaps standby and primary, returns the new primary port or -1 if nothing was promoted
+    private synchronized int promote(Process expectedPrimary) {
+        if (closing || (expectedPrimary != null && expectedPrimary != process) || standby == null || !standby.isAlive()) {
+            return -1;
+        }
+        Process oldProcess = process;
+        CompletableFuture<Void> oldLogStream = logStream;
+        Semaphore oldSlots = slots;
+        retiredPorts.add(port);
+        retiringProcesses.put(oldProcess, oldLogStream);
+        process = standby;
+        logStream = standbyLogStream;
+        port = standbyPort;
+        slots = new Semaphore(parallel, true);
+        standby = null;
+        standbyLogStream = null;
+        standbyFailures = 0;
+        watch(process);
+        logger.info("Promoted standby llamacpp-server on port {} to primary", port);
+        scheduleStandby(0);
+        executor.execute(() -> {
+            try {
+                drain(oldSlots);
+                stop(oldProcess, oldLogStream);
+            } catch (Exception e) {
+                if (!closing) {
+                    logger.error("Cannot stop old primary llamacpp-server: {}", e.getMessage(), e);
+                }
+            } finally {
+                synchronized (this) {
+                    retiringProcesses.remove(oldProcess);
+                }
+            }
+        });
+        return port;
+    }
+
+    private void notifyPromotion(int newPort) {
+        for (StandbyListener listener : standbyListeners) {
+            try {
+                listener.onPromote(newPort);
+            } catch (Exception e) {
+                logger.warn("Standby listener {} failed: {}", listener, e.getMessage());
+            }
+        }
+    }
+
+    private void drain(Semaphore oldSlots) throws InterruptedException {
+        if (oldSlots.tryAcquire(parallel, DRAIN_TIMEOUT.toMillis(), java.util.concurrent.TimeUnit.MILLISECONDS)) {
+            oldSlots.release(parallel);
+        } else {
+            logger.warn("In-flight requests did not finish within {}, stopping old primary anyway", DRAIN_TIMEOUT);
+        }
+    }
+
+    /**
+     * Sends a JSON POST request to the given llama-server endpoint and records a {@link RequestTrace} for it.
+     * At most --parallel requests are in flight at once, the rest wait in a fair queue on the Java side
+     * so that the queue wait is visible in the trace instead of hidden inside llama-server.
+     * Uses a default request timeout of 10 minutes.
+     *
+     * @param endpoint the endpoint path, like "/completion" or "/v1/chat/completions"
+     * @param body the JSON request body
+     * @return the HTTP response with the body as a string
+     * @throws IOException if the request fails
+     * @throws InterruptedException if the request is interrupted
+     */
+    public HttpResponse<String> post(String endpoint, String body) throws IOException, InterruptedException {
+        return post(endpoint, body, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Sends a JSON POST request to the given llama-server endpoint and records a {@link RequestTrace} for it.
+     * Failed requests are traced too, with status -1 and only the phases observed before the failure.
+     *
+     * @param endpoint the endpoint path, like "/completion" or "/v1/chat/completions"
+     * @param body the JSON request body
+     * @param timeout how long to wait for the response once the request is dispatched
+     * @return the HTTP response with the body as a string
+     * @throws IOException if the request fails or times out
+     * @throws InterruptedException if the request is interrupted
+     */
+    public HttpResponse<String> post(String endpoint, String body, Duration timeout) throws IOException, InterruptedException {
+        long submitted = System.nanoTime();
+        // read slots before port: promote() swaps port first, so new slots always come with the new port
+        Semaphore slots = this.slots;
+        slots.acquire();
+        long dispatched = System.nanoTime();
+        TimedBodyPublisher publisher = new TimedBodyPublisher(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        AtomicLong firstByte = new AtomicLong();
+        int statusCode = -1;
+        String responseBody = null;
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + port + endpoint))
+                    .header("Content-Type", "application/json")
+                    .timeout(timeout)
+                    .POST(publisher)
+                    .build();
+            HttpResponse<String> response = client.send(request, info -> {
+                firstByte.set(System.nanoTime());
+                return HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+            });
+            statusCode = response.statusCode();
+            responseBody = response.body();
+            return response;
+        } finally {
+            slots.release();
+            long completed = System.nanoTime();
+            tracer.record(RequestTrace.of(endpoint, model, statusCode, responseBody,
+                    submitted, dispatched, publisher.subscribed, publisher.completed, firstByte.get(), completed));
+        }
+    }
+
+    /**
+     * Returns the model name used as the {@link RequestTracer} histogram key: the --alias if set,
+     * otherwise the --model/--hf-file file name, otherwise the --hf-repo name.
+     *
+     * @return the model name of this server
+     */
+    public String model() {
+        return model;
+    }
+
+    /**
+     * Returns the tracer holding per-endpoint latency histograms for requests made with {@link #post(String, String)}.
+     *
+     * @return the request tracer of this server
+     */
+    public RequestTracer tracer() {
+        return tracer;
+    }
+
     /**
      * Stops the server process and cleans up all resources including temporary files.
      * This method is thread-safe and can be called multiple times safely.
@@ -145,7 +429,13 @@ public class LlamacppServer implements AutoCloseable {
     @Override
     public synchronized void close() throws Exception {
         if (isStarted) {
-            stop();
+            closing = true;
+            stop(process, logStream);
+            disableStandby();
+            for (Map.Entry<Process, CompletableFuture<Void>> retiring : new ArrayList<>(retiringProcesses.entrySet())) {
+                stop(retiring.getKey(), retiring.getValue());
+            }
+            executor.shutdownNow();
             for (File unpacked: unpackedFiles) {
                 if (unpacked.exists()) {
                     logger.info("Deleting temp file {}", unpacked);
@@ -159,7 +449,7 @@ public class LlamacppServer implements AutoCloseable {
         }
     }
 
-    private void stop() throws IOException, InterruptedException, ExecutionException {
+    private static void stop(Process process, CompletableFuture<Void> logStream) throws IOException, InterruptedException, ExecutionException {
         if (process.isAlive()) {
             logger.info("Waiting for running llamacpp-server to stop...");
             process.destroy();
@@ -187,6 +477,152 @@ public class LlamacppServer implements AutoCloseable {
 
     }
 
+    private static Process spawn(File workdir, String[] args) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder();
+        List<String> commandArgs = new ArrayList<>();
+        commandArgs.add(workdir + "/llama-server");
+        commandArgs.addAll(Arrays.asList(args));
+        builder.command(commandArgs);
+        builder.redirectErrorStream(true);
+        builder.directory(workdir);
+        return builder.start();
+    }
+
+    private CompletableFuture<Void> streamLogs(Process process, String prefix) {
+        return CompletableFuture.runAsync(() -> {
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                        String line;
+                        while (process.isAlive() && (line = reader.readLine()) != null) {
+                            logger.info("{}{}", prefix, line);
+                        }
+                    } catch (IOException e) {
+                        if (process.isAlive()) {
+                            logger.error("Log stream error: {}", e.getMessage());
+                        } else {
+                            logger.debug("Log stream closed during shutdown: {}", e.getMessage());
+                        }
+                    } catch (Exception e) {
+                        logger.error("Unexpected error in log stream: {}", e.getMessage(), e);
+                    }
+                }, executor
+        );
+    }
+
+    private void watch(Process primary) {
+        primary.onExit().thenRunAsync(() -> {
+            if (closing || primary != process) {
+                return;
+            }
+            logger.warn("llamacpp-server exited unexpectedly with code {}", primary.exitValue());
+            if (standbyEnabled) {
+                // the primary is already gone, so even a still loading standby is better than nothing
+                int newPort = promote(primary);
+                if (newPort >= 0) {
+                    notifyPromotion(newPort);
+                } else if (!closing) {
+                    logger.error("No live standby llamacpp-server to fail over to");
+                }
+            }
+        }, executor);
+    }
+
+    // spawns the standby on the instance executor after the delay, once the primary reports healthy
+    private void scheduleStandby(long delayMillis) {
+        if (closing) {
+            return;
+        }
+        try {
+            CompletableFuture.runAsync(this::startStandbyWhenPrimaryReady,
+                    CompletableFuture.delayedExecutor(delayMillis, java.util.concurrent.TimeUnit.MILLISECONDS, executor));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Not scheduling standby llamacpp-server, shutting down");
+        }
+    }
+
+    private void startStandbyWhenPrimaryReady() {
+        try {
+            while (!closing && standbyEnabled && !isHealthy()) {
+                Thread.sleep(500);
+            }
+            synchronized (this) {
+                spawnStandby();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            long backoff = nextBackoff();
+            logger.error("Cannot start standby llamacpp-server, retrying in {} ms: {}", backoff, e.getMessage(), e);
+            scheduleStandby(backoff);
+        }
+    }
+
+    private synchronized long nextBackoff() {
+        standbyFailures++;
+        return Math.min(MAX_STANDBY_BACKOFF_MILLIS, 1000L << Math.min(standbyFailures - 1, 16));
+    }
+
+    // must be called while holding the instance lock
+    private void spawnStandby() throws IOException {
+        if (closing || !standbyEnabled || standby != null) {
+            return;
+        }
+        standbyPort = nextStandbyPort();
+        logger.info("Starting standby llamacpp-server on port {}", standbyPort);
+        Process spawned = spawn(workdir, withPort(args, standbyPort));
+        standby = spawned;
+        standbyLogStream = streamLogs(spawned, "[standby] ");
+        standbySpawnedAt = System.nanoTime();
+        spawned.onExit().thenRunAsync(() -> {
+            synchronized (this) {
+                if (standby == spawned) {
+                    logger.warn("Standby llamacpp-server exited with code {}", spawned.exitValue());
+                    standby = null;
+                    standbyLogStream = null;
+                    if (!closing && standbyEnabled) {
+                        // a standby which ran for a while is not a crash loop, so start over with a short backoff
+                        if (System.nanoTime() - standbySpawnedAt > STANDBY_STABLE_MILLIS * 1000000L) {
+                            standbyFailures = 0;
+                        }
+                        scheduleStandby(nextBackoff());
+                    }
+                }
+            }
+        }, executor);
+    }
+
+    // must be called while holding the instance lock
+    private int nextStandbyPort() throws IOException {
+        if (configuredStandbyPort != port && !retiredPorts.contains(configuredStandbyPort)) {
+            return configuredStandbyPort;
+        }
+        for (int attempt = 0; attempt < 10; attempt++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                int free = socket.getLocalPort();
+                if (free != port && !retiredPorts.contains(free)) {
+                    return free;
+                }
+            }
+        }
+        throw new IOException("Cannot find a free port for the standby llamacpp-server");
+    }
+
+    Process standbyProcess() {
+        return standby;
+    }
+
+    private static String[] withPort(String[] args, int port) {
+        List<String> result = new ArrayList<>(Arrays.asList(args));
+        for (int i = 0; i < result.size() - 1; i++) {
+            if ("--port".equals(result.get(i)) || "-p".equals(result.get(i))) {
+                result.set(i + 1, String.valueOf(port));
+                return result.toArray(new String[0]);
+            }
+        }
+        result.add("--port");
+        result.add(String.valueOf(port));
+        return result.toArray(new String[0]);
+    }
+
     private static synchronized File unpack(LLAMACPP_BACKEND backend) throws IOException {
         String tmp = System.getProperty("java.io.tmpdir");
         File workdir = new File(tmp + File.separator + "llamacpp");
@@ -232,6 +668,34 @@ public class LlamacppServer implements AutoCloseable {
         return 8080; // Default port
     }
 
+    private static String extractModelFromArgs(String[] args) {
+        String model = "unknown";
+        for (int i = 0; i < args.length - 1; i++) {
+            String arg = args[i];
+            if ("--alias".equals(arg) || "-a".equals(arg)) {
+                return args[i + 1];
+            } else if ("--model".equals(arg) || "-m".equals(arg) || "--hf-file".equals(arg) || "-hff".equals(arg)) {
+                model = new File(args[i + 1]).getName();
+            } else if (("--hf-repo".equals(arg) || "-hf".equals(arg)) && "unknown".equals(model)) {
+                model = args[i + 1];
+            }
+        }
+        return model;
+    }
+
+    private static int extractParallelFromArgs(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--parallel".equals(args[i]) || "-np".equals(args[i])) {
+                try {
+                    return Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid parallel slot count in args: {}", args[i + 1]);
+                }
+            }
+        }
+        return 1; // llama-server default
+    }
+
     private static void unpackResourceList(File workdir, String resourceDir, String[] resourcePaths) throws IOException {
         for (String fileName: resourcePaths) {
             File dest = new File(workdir.toString() + File.separator + fileName);
@@ -263,4 +727,51 @@ public class LlamacppServer implements AutoCloseable {
         logger.debug("Copied {} bytes", bytesCopied);
     }
 
+    /**
+     * Wraps a body publisher to timestamp when the connection is ready to take the body and when it was fully sent.
+     */
+    private static class TimedBodyPublisher implements HttpRequest.BodyPublisher {
+        private final HttpRequest.BodyPublisher delegate;
+        volatile long subscribed = 0;
+        volatile long completed = 0;
+
+        TimedBodyPublisher(HttpRequest.BodyPublisher delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            if (subscribed == 0) {
+                subscribed = System.nanoTime();
+            }
+            delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ByteBuffer item) {
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed = System.nanoTime();
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
 }
@@ -0,0 +1,136 @@
+package ai.nixiesearch.llamacppserver;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A per-request phase breakdown for a call made through {@link LlamacppServer#post(String, String)}.
+ * Client-side phases are measured in the JVM, server-side phases are parsed from the
+ * {@code timings} field of the llama-server response (absent for endpoints like /embedding).
+ * All durations are in microseconds, missing values are -1.
+ */
+public class RequestTrace {
+    public enum Phase {
+        QUEUE_WAIT,
+        CONNECT,
+        SEND,
+        FIRST_BYTE,
+        TOTAL,
+        PROMPT_EVAL,
+        GENERATION
+    }
+
+    private static final Pattern TIMINGS = Pattern.compile("\"timings\"\\s*:\\s*\\{([^}]*)}");
+    private static final Pattern PROMPT_N = fieldPattern("prompt_n");
+    private static final Pattern PROMPT_MS = fieldPattern("prompt_ms");
+    private static final Pattern PREDICTED_N = fieldPattern("predicted_n");
+    private static final Pattern PREDICTED_MS = fieldPattern("predicted_ms");
+
+    public final String endpoint;
+    public final String model;
+    public final int statusCode;
+    public final long queueWaitMicros;
+    public final long connectMicros;
+    public final long sendMicros;
+    public final long firstByteMicros;
+    public final long totalMicros;
+    public final long promptTokens;
+    public final long promptMicros;
+    public final long predictedTokens;
+    public final long predictedMicros;
+
+    RequestTrace(String endpoint, String model, int statusCode,
+                 long queueWaitMicros, long connectMicros, long sendMicros, long firstByteMicros, long totalMicros,
+                 long promptTokens, long promptMicros, long predictedTokens, long predictedMicros) {
+        this.endpoint = endpoint;
+        this.model = model;
+        this.statusCode = statusCode;
+        this.queueWaitMicros = queueWaitMicros;
+        this.connectMicros = connectMicros;
+        this.sendMicros = sendMicros;
+        this.firstByteMicros = firstByteMicros;
+        this.totalMicros = totalMicros;
+        this.promptTokens = promptTokens;
+        this.promptMicros = promptMicros;
+        this.predictedTokens = predictedTokens;
+        this.predictedMicros = predictedMicros;
+    }
+
+    /**
+     * Builds a trace from client-side timestamps and the raw response body.
+     * Timestamps are System.nanoTime() values, a zero timestamp means the phase was not observed.
+     */
+    static RequestTrace of(String endpoint, String model, int statusCode, String body,
+                           long submitted, long dispatched, long connected, long sent, long firstByte, long completed) {
+        long promptTokens = -1;
+        long promptMicros = -1;
+        long predictedTokens = -1;
+        long predictedMicros = -1;
+        if (body != null) {
+            Matcher matcher = TIMINGS.matcher(body);
+            if (matcher.find()) {
+                String timings = matcher.group(1);
+                promptTokens = (long) parseField(timings, PROMPT_N);
+                promptMicros = millisToMicros(parseField(timings, PROMPT_MS));
+                predictedTokens = (long) parseField(timings, PREDICTED_N);
+                predictedMicros = millisToMicros(parseField(timings, PREDICTED_MS));
+            }
+        }
+        return new RequestTrace(endpoint, model, statusCode,
+                between(submitted, dispatched),
+                between(dispatched, connected),
+                between(connected, sent),
+                between(dispatched, firstByte),
+                between(submitted, completed),
+                promptTokens, promptMicros, predictedTokens, predictedMicros);
+    }
+
+    /**
+     * Returns the duration of the given phase in microseconds, or -1 if it was not observed.
+     */
+    public long duration(Phase phase) {
+        switch (phase) {
+            case QUEUE_WAIT: return queueWaitMicros;
+            case CONNECT: return connectMicros;
+            case SEND: return sendMicros;
+            case FIRST_BYTE: return firstByteMicros;
+            case TOTAL: return totalMicros;
+            case PROMPT_EVAL: return promptMicros;
+            case GENERATION: return predictedMicros;
+            default: throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+    }
+
+    private static Pattern fieldPattern(String name) {
+        return Pattern.compile("\"" + name + "\"\\s*:\\s*(-?[0-9.eE+-]+)");
+    }
+
+    private static double parseField(String timings, Pattern field) {
+        Matcher matcher = field.matcher(timings);
+        if (matcher.find()) {
+            try {
+                return Double.parseDouble(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static long millisToMicros(double millis) {
+        return millis < 0 ? -1 : Math.round(millis * 1000.0);
+    }
+
+    private static long between(long from, long to) {
+        return (from == 0 || to == 0 || to < from) ? -1 : (to - from) / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestTrace{endpoint=" + endpoint + ", model=" + model + ", status=" + statusCode +
+                ", queueWait=" + queueWaitMicros + "us, connect=" + connectMicros + "us, send=" + sendMicros +
+                "us, firstByte=" + firstByteMicros + "us, total=" + totalMicros +
+                "us, prompt_n=" + promptTokens + ", prompt=" + promptMicros +
+                "us, predicted_n=" + predictedTokens + ", predicted=" + predictedMicros + "us}";
+    }
+}
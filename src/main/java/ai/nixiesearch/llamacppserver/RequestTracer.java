@@ -0,0 +1,66 @@
+package ai.nixiesearch.llamacppserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Aggregates {@link RequestTrace} records into per endpoint/model/phase histograms and
+ * fans them out to registered {@link TraceListener}s.
+ */
+public class RequestTracer {
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracer.class);
+
+    private final Map<String, Map<RequestTrace.Phase, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private final List<TraceListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(TraceListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TraceListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the histogram of the given phase durations (in microseconds) for an endpoint and model.
+     * Returns an empty histogram if no matching requests were recorded yet.
+     */
+    public LatencyHistogram histogram(String endpoint, String model, RequestTrace.Phase phase) {
+        Map<RequestTrace.Phase, LatencyHistogram> phases = histograms.get(key(endpoint, model));
+        if (phases == null) {
+            return new LatencyHistogram();
+        }
+        return phases.get(phase);
+    }
+
+    void record(RequestTrace trace) {
+        Map<RequestTrace.Phase, LatencyHistogram> phases = histograms.computeIfAbsent(key(trace.endpoint, trace.model), k -> {
+            Map<RequestTrace.Phase, LatencyHistogram> map = new EnumMap<>(RequestTrace.Phase.class);
+            for (RequestTrace.Phase phase : RequestTrace.Phase.values()) {
+                map.put(phase, new LatencyHistogram());
+            }
+            return Collections.unmodifiableMap(map);
+        });
+        for (Map.Entry<RequestTrace.Phase, LatencyHistogram> entry : phases.entrySet()) {
+            long duration = trace.duration(entry.getKey());
+            if (duration >= 0) {
+                entry.getValue().record(duration);
+            }
+        }
+        for (TraceListener listener : listeners) {
+            try {
+                listener.onTrace(trace);
+            } catch (Exception e) {
+                logger.warn("Trace listener {} failed: {}", listener, e.getMessage());
+            }
+        }
+    }
+
+    private static String key(String endpoint, String model) {
+        return endpoint + "|" + model;
+    }
+}
@@ -0,0 +1,10 @@
+package ai.nixiesearch.llamacppserver;
+
+/**
+ * Notified when a warm standby llama-server is promoted to primary. After a promotion the server
+ * listens on a different port, so callers talking to llama-server directly must switch to newPort.
+ * Called on a background thread, implementations must not throw.
+ */
+public interface StandbyListener {
+    void onPromote(int newPort);
+}
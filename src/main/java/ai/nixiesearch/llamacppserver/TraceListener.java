@@ -0,0 +1,10 @@
+package ai.nixiesearch.llamacppserver;
+
+/**
+ * Receives a {@link RequestTrace} for every request made through {@link LlamacppServer#post(String, String)}.
+ * Called on the requesting thread after the response is read, so implementations should be cheap
+ * and must not throw.
+ */
+public interface TraceListener {
+    void onTrace(RequestTrace trace);
+}
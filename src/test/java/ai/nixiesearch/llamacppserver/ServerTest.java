@@ -4,10 +4,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.net.ServerSocket;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ServerTest {
     @Test
@@ -23,6 +26,75 @@ public class ServerTest {
         });
     }
 
+    @Test
+    void testPostTrace() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String[] args = {
+                "--port", String.valueOf(port),
+                "--hf-repo", "Qwen/Qwen2.5-0.5B-Instruct-GGUF",
+                "--hf-file", "qwen2.5-0.5b-instruct-q4_0.gguf"
+        };
+        LlamacppServer server = LlamacppServer.start(args, LlamacppServer.LLAMACPP_BACKEND.GGML_CPU);
+        try {
+            long startMillis = System.currentTimeMillis();
+            while (!server.isHealthy() && System.currentTimeMillis() - startMillis < 60000) {
+                Thread.sleep(1000);
+            }
+            Assertions.assertTrue(server.isHealthy(), "Server should become healthy");
+
+            List<RequestTrace> traces = new CopyOnWriteArrayList<>();
+            server.tracer().addListener(traces::add);
+            HttpResponse<String> response = server.post("/completion", "{\"prompt\": \"Hello\", \"n_predict\": 8}");
+            Assertions.assertEquals(200, response.statusCode());
+
+            Assertions.assertEquals(1, traces.size());
+            RequestTrace trace = traces.get(0);
+            Assertions.assertEquals("/completion", trace.endpoint);
+            Assertions.assertEquals(server.model(), trace.model);
+            Assertions.assertEquals(200, trace.statusCode);
+            Assertions.assertTrue(trace.queueWaitMicros >= 0, "Queue wait should be measured");
+            Assertions.assertTrue(trace.connectMicros >= 0, "Connect should be measured");
+            Assertions.assertTrue(trace.sendMicros >= 0, "Send should be measured");
+            Assertions.assertTrue(trace.firstByteMicros > 0, "First byte should be measured");
+            Assertions.assertTrue(trace.promptTokens > 0, "prompt_n should be parsed from timings");
+            Assertions.assertTrue(trace.promptMicros > 0, "prompt_ms should be parsed from timings");
+            Assertions.assertTrue(trace.predictedMicros > 0, "predicted_ms should be parsed from timings");
+            Assertions.assertEquals(1, server.tracer().histogram("/completion", server.model(), RequestTrace.Phase.GENERATION).count());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    void testPostTraceOnFailure() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String[] args = {
+                "--port", String.valueOf(port),
+                "--hf-repo", "Qwen/Qwen2.5-0.5B-Instruct-GGUF",
+                "--hf-file", "qwen2.5-0.5b-instruct-q4_0.gguf"
+        };
+        LlamacppServer server = LlamacppServer.start(args, LlamacppServer.LLAMACPP_BACKEND.GGML_CPU);
+        try {
+            List<RequestTrace> traces = new CopyOnWriteArrayList<>();
+            server.tracer().addListener(traces::add);
+            server.process.destroyForcibly();
+            server.process.waitFor();
+
+            Assertions.assertThrows(IOException.class, () -> server.post("/completion", "{\"prompt\": \"Hello\"}"));
+            Assertions.assertEquals(1, traces.size());
+            Assertions.assertEquals(-1, traces.get(0).statusCode);
+            Assertions.assertTrue(traces.get(0).totalMicros >= 0, "Total time should be measured on failure");
+        } finally {
+            server.close();
+        }
+    }
+
     private boolean waitTillPortOpened(int millis, int port) throws IllegalStateException, IOException, InterruptedException {
         var client = HttpClient.newHttpClient();
         var request = HttpRequest.newBuilder(URI.create("http://localhost:8080/health")).build();
@@ -0,0 +1,128 @@
+package ai.nixiesearch.llamacppserver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class StandbyTest {
+
+    private int findAvailablePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    void testFailoverToStandby() throws Exception {
+        int port = findAvailablePort();
+        int standbyPort = findAvailablePort();
+        String[] args = {
+                "--port", String.valueOf(port),
+                "--hf-repo", "Qwen/Qwen2.5-0.5B-Instruct-GGUF",
+                "--hf-file", "qwen2.5-0.5b-instruct-q4_0.gguf"
+        };
+
+        LlamacppServer server = LlamacppServer.start(args, LlamacppServer.LLAMACPP_BACKEND.GGML_CPU, standbyPort);
+        try {
+            List<Integer> promotions = new CopyOnWriteArrayList<>();
+            server.addStandbyListener(promotions::add);
+            Assertions.assertFalse(server.promoteStandby(), "Standby should not be promoted before it is healthy");
+            Assertions.assertTrue(waitForHealthy(server, 60000), "Primary should become healthy");
+            Assertions.assertTrue(waitForStandby(server, 60000), "Standby should become healthy");
+
+            // Simulate a crash of the primary
+            Process primary = server.process;
+            primary.destroyForcibly();
+            primary.waitFor();
+
+            Assertions.assertTrue(waitForHealthy(server, 5000), "Promoted standby should serve right away");
+            Assertions.assertEquals(standbyPort, server.port(), "Standby port should become primary");
+            for (int i = 0; i < 50 && promotions.isEmpty(); i++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals(List.of(standbyPort), promotions, "Listener should get the new port");
+            Assertions.assertTrue(waitForStandby(server, 60000), "Standby should be replenished");
+
+            // The replacement standby never reuses a port which served as primary
+            Assertions.assertTrue(server.promoteStandby(), "Healthy standby should be promoted");
+            Assertions.assertNotEquals(port, server.port(), "Old primary port should not be reused");
+            Assertions.assertNotEquals(standbyPort, server.port(), "Old primary port should not be reused");
+            Assertions.assertEquals(List.of(standbyPort, server.port()), promotions, "Listener should get the new port");
+            Assertions.assertTrue(server.isHealthy(), "Promoted standby should serve right away");
+        } finally {
+            server.close();
+        }
+        Assertions.assertFalse(server.isStandbyReady(), "Standby should be stopped after close");
+    }
+
+    @Test
+    void testStandbyRespawnsAfterCrash() throws Exception {
+        int port = findAvailablePort();
+        int standbyPort = findAvailablePort();
+        String[] args = {
+                "--port", String.valueOf(port),
+                "--hf-repo", "Qwen/Qwen2.5-0.5B-Instruct-GGUF",
+                "--hf-file", "qwen2.5-0.5b-instruct-q4_0.gguf"
+        };
+
+        LlamacppServer server = LlamacppServer.start(args, LlamacppServer.LLAMACPP_BACKEND.GGML_CPU, standbyPort);
+        try {
+            Assertions.assertTrue(waitForStandby(server, 120000), "Standby should become healthy");
+            Process standby = server.standbyProcess();
+            standby.destroyForcibly();
+            standby.waitFor();
+            Thread.sleep(1000);
+            Assertions.assertTrue(waitForStandby(server, 60000), "Standby should be respawned after a crash");
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    void testDisableStandby() throws Exception {
+        int port = findAvailablePort();
+        int standbyPort = findAvailablePort();
+        String[] args = {
+                "--port", String.valueOf(port),
+                "--hf-repo", "Qwen/Qwen2.5-0.5B-Instruct-GGUF",
+                "--hf-file", "qwen2.5-0.5b-instruct-q4_0.gguf"
+        };
+
+        LlamacppServer server = LlamacppServer.start(args, LlamacppServer.LLAMACPP_BACKEND.GGML_CPU, standbyPort);
+        try {
+            Assertions.assertTrue(waitForStandby(server, 120000), "Standby should become healthy");
+
+            server.disableStandby();
+            Assertions.assertFalse(server.isStandbyReady(), "Standby should be stopped");
+            Assertions.assertFalse(server.promoteStandby(), "Nothing to promote without standby");
+        } finally {
+            server.close();
+        }
+    }
+
+    private boolean waitForHealthy(LlamacppServer server, int timeoutMillis) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        while (System.currentTimeMillis() - startTime < timeoutMillis) {
+            if (server.isHealthy()) {
+                return true;
+            }
+            Thread.sleep(500);
+        }
+        return false;
+    }
+
+    private boolean waitForStandby(LlamacppServer server, int timeoutMillis) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        while (System.currentTimeMillis() - startTime < timeoutMillis) {
+            if (server.isStandbyReady()) {
+                return true;
+            }
+            Thread.sleep(500);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package ai.nixiesearch.llamacppserver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TracingTest {
+
+    @Test
+    void testParseTimings() {
+        String body = "{\"content\":\"hi\",\"timings\":{\"prompt_n\":12,\"prompt_ms\":34.5,\"prompt_per_token_ms\":2.875," +
+                "\"predicted_n\":8,\"predicted_ms\":120.25,\"predicted_per_token_ms\":15.03}}";
+        RequestTrace trace = RequestTrace.of("/completion", "qwen", 200, body,
+                1_000_000L, 3_000_000L, 4_000_000L, 5_000_000L, 10_000_000L, 11_000_000L);
+
+        Assertions.assertEquals(12, trace.promptTokens);
+        Assertions.assertEquals(34500, trace.promptMicros);
+        Assertions.assertEquals(8, trace.predictedTokens);
+        Assertions.assertEquals(120250, trace.predictedMicros);
+        Assertions.assertEquals(2000, trace.queueWaitMicros);
+        Assertions.assertEquals(1000, trace.connectMicros);
+        Assertions.assertEquals(1000, trace.sendMicros);
+        Assertions.assertEquals(7000, trace.firstByteMicros);
+        Assertions.assertEquals(10000, trace.totalMicros);
+    }
+
+    @Test
+    void testMissingTimings() {
+        RequestTrace trace = RequestTrace.of("/embedding", "qwen", 200, "[{\"embedding\":[0.1]}]",
+                1_000_000L, 2_000_000L, 0L, 0L, 3_000_000L, 4_000_000L);
+
+        Assertions.assertEquals(-1, trace.promptTokens);
+        Assertions.assertEquals(-1, trace.promptMicros);
+        Assertions.assertEquals(-1, trace.connectMicros);
+        Assertions.assertEquals(-1, trace.sendMicros);
+        Assertions.assertEquals(3000, trace.totalMicros);
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 100);
+        }
+        Assertions.assertEquals(10000, histogram.count());
+        Assertions.assertEquals(1_000_000, histogram.max());
+        Assertions.assertEquals(500_000, histogram.percentile(50), 500_000 * 0.016);
+        Assertions.assertEquals(990_000, histogram.percentile(99), 990_000 * 0.016);
+        Assertions.assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void testHistogramBuckets() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1000, 123_456_789L, (1L << 40) - 1}) {
+            int index = LatencyHistogram.indexOf(value);
+            Assertions.assertTrue(LatencyHistogram.upperBound(index) >= value, "upper bound below " + value);
+            Assertions.assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value, "wrong bucket for " + value);
+        }
+    }
+
+    @Test
+    void testTracerAggregatesAndNotifies() {
+        RequestTracer tracer = new RequestTracer();
+        List<RequestTrace> received = new ArrayList<>();
+        tracer.addListener(received::add);
+        tracer.addListener(trace -> {
+            throw new RuntimeException("broken listener");
+        });
+        String body = "{\"timings\":{\"prompt_n\":4,\"prompt_ms\":10.0,\"predicted_n\":2,\"predicted_ms\":20.0}}";
+        tracer.record(RequestTrace.of("/completion", "qwen", 200, body, 1, 2, 3, 4, 5, 6));
+        tracer.record(RequestTrace.of("/completion", "qwen", 200, body, 1, 2, 3, 4, 5, 6));
+        tracer.record(RequestTrace.of("/completion", "llama", 200, body, 1, 2, 3, 4, 5, 6));
+
+        Assertions.assertEquals(3, received.size());
+        Assertions.assertEquals(2, tracer.histogram("/completion", "qwen", RequestTrace.Phase.PROMPT_EVAL).count());
+        Assertions.assertEquals(1, tracer.histogram("/completion", "llama", RequestTrace.Phase.GENERATION).count());
+        Assertions.assertEquals(0, tracer.histogram("/embedding", "qwen", RequestTrace.Phase.TOTAL).count());
+    }
+}